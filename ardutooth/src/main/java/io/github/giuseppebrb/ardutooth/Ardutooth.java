@@ -28,14 +28,25 @@ import java.util.UUID;
  * {@code sendShort(value)}, {@code sendFloat(value)}, {@code sendDouble(value)}, {@code sendBoolean(value)},
  * {@code sendChar(value)}, {@code sendString(value)}</p>
  *
+ * <p>Data sent by Arduino can be read with {@code receiveLine()} or subscribing to one of the
+ * {@link DataFlow.Publisher} returned by {@code receiveLines()}, {@code receiveInts()},
+ * {@code receiveDoubles()}, {@code receiveRecords(delimiter)}, which deliver the parsed lines
+ * only when requested. See also {@link DataStreams}.</p>
+ *
  * @author Giuseppe Barbato
  * @version 1.0.0
  */
 public class Ardutooth {
     protected static final String TAG = "Ardutooth";
     protected static final UUID UUID = java.util.UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
+    /**
+     * Number of items buffered for each subscriber of the publishers returned by the {@code receive} methods,
+     * when not specified.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64;
     private static Activity mActivity;
     private static BluetoothHandler mBtHandler;
+    private static LineDispatcher mDispatcher;
     private static Ardutooth instance = null;
 
     /**
@@ -56,6 +67,12 @@ public class Ardutooth {
      */
     private Ardutooth() {
         mBtHandler = BluetoothHandler.getInstance(mActivity);
+        mDispatcher = new LineDispatcher(new LineDispatcher.InputSource() {
+            @Override
+            public BufferedReader getInputReader() {
+                return mBtHandler.getSocket() != null ? mBtHandler.getInputReader() : null;
+            }
+        });
         isConnected();
     }
 
@@ -97,6 +114,8 @@ public class Ardutooth {
      * Close the connection with Arduino if there's already one established.
      */
     public void disconnect() {
+        if (BluetoothHandler.connected)
+            mDispatcher.closingConnection();
         mBtHandler.closeConnection();
     }
 
@@ -245,4 +264,68 @@ public class Ardutooth {
         return result;
     }
 
-}
\ No newline at end of file
+    /**
+     * Creates a {@link DataFlow.Publisher} of the lines sent by Arduino, read on a background thread
+     * while there's at least a subscriber. Subscribers receive only the lines sent after they subscribed,
+     * and up to {@link #DEFAULT_BUFFER_SIZE} lines not requested yet are kept, dropping the oldest ones.
+     * Don't use {@code receiveChar()} or {@code receiveLine()} while there are subscribers: they would
+     * compete for the same lines. Also, the background thread stops only when the first line after the
+     * last subscriber cancelled arrives, so that line is consumed and not returned by {@code receiveLine()}.
+     * Subscribers are completed when {@code disconnect()} is called, after receiving the lines already
+     * buffered, while they get an error if the connection is lost.
+     *
+     * @return the {@link DataFlow.Publisher} of the lines.
+     */
+    public DataFlow.Publisher<String> receiveLines() {
+        return receive(LineParsers.STRING, DEFAULT_BUFFER_SIZE, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Creates a {@link DataFlow.Publisher} of the {@link int} values sent by Arduino, one per line.
+     * Lines that cannot be parsed are skipped.
+     *
+     * @return the {@link DataFlow.Publisher} of the values.
+     * @see #receiveLines()
+     */
+    public DataFlow.Publisher<Integer> receiveInts() {
+        return receive(LineParsers.INTEGER, DEFAULT_BUFFER_SIZE, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Creates a {@link DataFlow.Publisher} of the {@link double} values sent by Arduino, one per line.
+     * Lines that cannot be parsed are skipped.
+     *
+     * @return the {@link DataFlow.Publisher} of the values.
+     * @see #receiveLines()
+     */
+    public DataFlow.Publisher<Double> receiveDoubles() {
+        return receive(LineParsers.DOUBLE, DEFAULT_BUFFER_SIZE, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Creates a {@link DataFlow.Publisher} of the records sent by Arduino, one per line,
+     * each one split into its fields.
+     *
+     * @param delimiter the {@link String} separating the fields of a record.
+     * @return the {@link DataFlow.Publisher} of the records.
+     * @see #receiveLines()
+     */
+    public DataFlow.Publisher<String[]> receiveRecords(String delimiter) {
+        return receive(LineParsers.record(delimiter), DEFAULT_BUFFER_SIZE, OverflowPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * Creates a {@link DataFlow.Publisher} of the lines sent by Arduino, converted by the given {@link LineParser}.
+     *
+     * @param parser     the {@link LineParser} converting each line.
+     * @param bufferSize the maximum number of items not requested yet kept for each subscriber.
+     * @param policy     the {@link OverflowPolicy} applied when the buffer of a subscriber is full.
+     * @param <T>        the type of the items published.
+     * @return the {@link DataFlow.Publisher} of the parsed lines.
+     * @see #receiveLines()
+     */
+    public <T> DataFlow.Publisher<T> receive(LineParser<T> parser, int bufferSize, OverflowPolicy policy) {
+        return mDispatcher.publisher(parser, bufferSize, policy);
+    }
+
+}
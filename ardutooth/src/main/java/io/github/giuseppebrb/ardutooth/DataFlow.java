@@ -0,0 +1,87 @@
+package io.github.giuseppebrb.ardutooth;
+
+/**
+ * Interfaces for the demand-driven streams of data received from Arduino.
+ *
+ * <p>They mirror the ones of {@code java.util.concurrent.Flow}, which is not available on the
+ * Android versions supported by the library, so they can be easily adapted to any Reactive Streams
+ * implementation.</p>
+ *
+ * <p>A {@link Subscriber} receives an item only after it asked for it through
+ * {@link Subscription#request(long)}: data coming from Arduino while a subscriber is not asking
+ * for more are kept in a bounded buffer and handled as defined by its {@link OverflowPolicy}.</p>
+ */
+public final class DataFlow {
+
+    /**
+     * Constructor
+     */
+    private DataFlow() {
+    }
+
+    /**
+     * A producer of items received by one or more {@link Subscriber}.
+     *
+     * @param <T> the type of the items published.
+     */
+    public interface Publisher<T> {
+        /**
+         * Adds the given {@link Subscriber}, which will receive {@link Subscriber#onSubscribe(Subscription)}
+         * before any other signal.
+         *
+         * @param subscriber the subscriber to add.
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items. Methods are invoked serially for each {@link Subscription}.
+     *
+     * @param <T> the type of the items received.
+     */
+    public interface Subscriber<T> {
+        /**
+         * Invoked before any other method for a new {@link Subscription}.
+         *
+         * @param subscription the subscription used to request items or to cancel.
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Invoked with the next item, only if it has been requested.
+         *
+         * @param item the item received.
+         */
+        void onNext(T item);
+
+        /**
+         * Invoked when the subscription has been terminated by an error. No other method will be invoked.
+         *
+         * @param throwable the error occurred.
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * Invoked when no more items will be received. No other method will be invoked.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Links a {@link Publisher} with a {@link Subscriber}.
+     */
+    public interface Subscription {
+        /**
+         * Adds the given number of items to the demand of the {@link Subscriber}.
+         * A value not greater than 0 terminates the subscription with an {@link IllegalArgumentException}.
+         *
+         * @param n number of items requested; {@link Long#MAX_VALUE} stands for an unbounded demand.
+         */
+        void request(long n);
+
+        /**
+         * Stops receiving items. Items already buffered are discarded.
+         */
+        void cancel();
+    }
+}
@@ -0,0 +1,228 @@
+package io.github.giuseppebrb.ardutooth;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Operators for the {@link DataFlow.Publisher} returned by {@link Ardutooth}.
+ *
+ * <p>Every operator translates the demand of its subscriber into the exact demand needed upstream,
+ * so backpressure is preserved: e.g. requesting 2 batches of 10 items requests 20 lines from Arduino.</p>
+ *
+ * <p>{@link #doubleBatches(DataFlow.Publisher, int)} and {@link #doubleWindows(DataFlow.Publisher, int, int)}
+ * parse the lines straight into a {@code double[]}, so numeric samples are never boxed.</p>
+ */
+public final class DataStreams {
+
+    /**
+     * Constructor
+     */
+    private DataStreams() {
+    }
+
+    /**
+     * Publishes one item every {@code n} received, discarding the others.
+     *
+     * @param source the {@link DataFlow.Publisher} to sample.
+     * @param n      the sampling interval, 1 to publish every item.
+     * @param <T>    the type of the items.
+     * @return a {@link DataFlow.Publisher} of the sampled items.
+     */
+    public static <T> DataFlow.Publisher<T> sample(final DataFlow.Publisher<T> source, final int n) {
+        checkPositive(n, "n");
+        return new DataFlow.Publisher<T>() {
+            @Override
+            public void subscribe(DataFlow.Subscriber<? super T> subscriber) {
+                source.subscribe(new OperatorSubscriber<T, T>(subscriber) {
+                    private int mCount;
+
+                    @Override
+                    long upstreamDemand(long requested) {
+                        return multiply(requested, n);
+                    }
+
+                    @Override
+                    public void onNext(T item) {
+                        if (++mCount == n) {
+                            mCount = 0;
+                            mDownstream.onNext(item);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Publishes the received items in groups of {@code size}.
+     * An incomplete batch left when the source completes is discarded.
+     *
+     * @param source the {@link DataFlow.Publisher} to batch.
+     * @param size   the number of items of each batch.
+     * @param <T>    the type of the items.
+     * @return a {@link DataFlow.Publisher} of the batches.
+     */
+    public static <T> DataFlow.Publisher<List<T>> batch(final DataFlow.Publisher<T> source, final int size) {
+        checkPositive(size, "size");
+        return new DataFlow.Publisher<List<T>>() {
+            @Override
+            public void subscribe(DataFlow.Subscriber<? super List<T>> subscriber) {
+                source.subscribe(new OperatorSubscriber<T, List<T>>(subscriber) {
+                    private List<T> mBatch = new ArrayList<>(size);
+
+                    @Override
+                    long upstreamDemand(long requested) {
+                        return multiply(requested, size);
+                    }
+
+                    @Override
+                    public void onNext(T item) {
+                        mBatch.add(item);
+                        if (mBatch.size() == size) {
+                            List<T> batch = mBatch;
+                            mBatch = new ArrayList<>(size);
+                            mDownstream.onNext(batch);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Parses the received lines as {@code double} values and publishes them in groups of {@code size}.
+     * Lines that cannot be parsed are skipped; an incomplete batch left when the source completes is discarded.
+     *
+     * @param lines the {@link DataFlow.Publisher} of the lines, e.g. {@link Ardutooth#receiveLines()}.
+     * @param size  the number of values of each batch.
+     * @return a {@link DataFlow.Publisher} of the batches, each one a new array.
+     */
+    public static DataFlow.Publisher<double[]> doubleBatches(DataFlow.Publisher<String> lines, int size) {
+        return doubleWindows(lines, size, size);
+    }
+
+    /**
+     * Parses the received lines as {@code double} values and publishes the last {@code size} ones
+     * every {@code step} values, oldest first. With {@code step} less than {@code size} windows overlap,
+     * with {@code step} greater than {@code size} some values are skipped.
+     * Lines that cannot be parsed are skipped.
+     *
+     * @param lines the {@link DataFlow.Publisher} of the lines, e.g. {@link Ardutooth#receiveLines()}.
+     * @param size  the number of values of each window.
+     * @param step  the number of values between the end of a window and the end of the next one.
+     * @return a {@link DataFlow.Publisher} of the windows, each one a new array.
+     */
+    public static DataFlow.Publisher<double[]> doubleWindows(final DataFlow.Publisher<String> lines, final int size, final int step) {
+        checkPositive(size, "size");
+        checkPositive(step, "step");
+        return new DataFlow.Publisher<double[]>() {
+            @Override
+            public void subscribe(DataFlow.Subscriber<? super double[]> subscriber) {
+                lines.subscribe(new OperatorSubscriber<String, double[]>(subscriber) {
+                    private final double[] mRing = new double[size];
+                    private final AtomicBoolean mFirstRequest = new AtomicBoolean(true);
+                    private int mNext;
+                    private int mRemaining = size;
+
+                    @Override
+                    long upstreamDemand(long requested) {
+                        long demand = multiply(requested, step);
+                        if (mFirstRequest.compareAndSet(true, false) && demand != Long.MAX_VALUE) {
+                            long extra = size - step;
+                            demand = extra > 0 && demand > Long.MAX_VALUE - extra ? Long.MAX_VALUE : demand + extra;
+                        }
+                        return demand;
+                    }
+
+                    @Override
+                    public void onNext(String line) {
+                        double value;
+                        try {
+                            value = Double.parseDouble(line.trim());
+                        } catch (NumberFormatException e) {
+                            Log.w(Ardutooth.TAG, "Skipping malformed line: " + line, e);
+                            mUpstream.request(1);
+                            return;
+                        }
+                        mRing[mNext] = value;
+                        mNext = (mNext + 1) % size;
+                        if (--mRemaining == 0) {
+                            mRemaining = step;
+                            double[] window = new double[size];
+                            System.arraycopy(mRing, mNext, window, 0, size - mNext);
+                            System.arraycopy(mRing, 0, window, size - mNext, mNext);
+                            mDownstream.onNext(window);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    private static void checkPositive(int value, String name) {
+        if (value <= 0)
+            throw new IllegalArgumentException(name + " must be greater than 0");
+    }
+
+    /**
+     * Multiplies two positive values, capping the result to {@link Long#MAX_VALUE}.
+     */
+    private static long multiply(long requested, int factor) {
+        if (requested > Long.MAX_VALUE / factor)
+            return Long.MAX_VALUE;
+        return requested * factor;
+    }
+
+    /**
+     * Base class of the operators: it subscribes to the source and acts as the {@link DataFlow.Subscription}
+     * of the downstream {@link DataFlow.Subscriber}, converting its demand with {@link #upstreamDemand(long)}.
+     *
+     * @param <T> the type of the items received.
+     * @param <R> the type of the items published.
+     */
+    private abstract static class OperatorSubscriber<T, R> implements DataFlow.Subscriber<T>, DataFlow.Subscription {
+        protected final DataFlow.Subscriber<? super R> mDownstream;
+        protected DataFlow.Subscription mUpstream;
+
+        OperatorSubscriber(DataFlow.Subscriber<? super R> downstream) {
+            mDownstream = downstream;
+        }
+
+        /**
+         * Converts the number of items requested downstream into the number of items to request upstream.
+         *
+         * @param requested a value greater than 0.
+         * @return the number of items to request upstream.
+         */
+        abstract long upstreamDemand(long requested);
+
+        @Override
+        public void onSubscribe(DataFlow.Subscription subscription) {
+            mUpstream = subscription;
+            mDownstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            mDownstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            mDownstream.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            mUpstream.request(n > 0 ? upstreamDemand(n) : n);
+        }
+
+        @Override
+        public void cancel() {
+            mUpstream.cancel();
+        }
+    }
+}
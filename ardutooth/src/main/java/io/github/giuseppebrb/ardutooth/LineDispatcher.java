@@ -0,0 +1,418 @@
+package io.github.giuseppebrb.ardutooth;
+
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class reads the lines sent by Arduino on a background thread and dispatches them
+ * to every {@link DataFlow.Subscriber} subscribed to one of its publishers.
+ *
+ * <p>Each subscription parses the lines with its own {@link LineParser} and keeps them in its own
+ * bounded buffer until they're requested, so a slow subscriber never blocks the others nor
+ * the reading of the input stream.</p>
+ *
+ * <p>A blocking read cannot be interrupted, so the reader thread notices that all the subscriptions
+ * have been cancelled only when the next line arrives: that line is consumed and discarded.</p>
+ */
+class LineDispatcher {
+    private final InputSource mSource;
+    private ReaderTask mTask;
+
+    /**
+     * Provides the input stream of the current connection.
+     */
+    interface InputSource {
+        /**
+         * Retrieve the {@link BufferedReader} of the current connection.
+         *
+         * @return the {@link BufferedReader} which reads the input stream, null if there's no connection.
+         */
+        BufferedReader getInputReader();
+    }
+
+    /**
+     * Constructor
+     *
+     * @param source the {@link InputSource} providing the input stream to read.
+     */
+    LineDispatcher(InputSource source) {
+        mSource = source;
+    }
+
+    /**
+     * Creates a {@link DataFlow.Publisher} of the lines received from Arduino.
+     *
+     * @param parser     the {@link LineParser} converting each line.
+     * @param bufferSize the maximum number of items kept for each subscriber.
+     * @param policy     the {@link OverflowPolicy} applied when the buffer of a subscriber is full.
+     * @param <T>        the type of the items published.
+     * @return the {@link DataFlow.Publisher} of the parsed lines.
+     */
+    <T> DataFlow.Publisher<T> publisher(final LineParser<T> parser, final int bufferSize, final OverflowPolicy policy) {
+        if (parser == null || policy == null)
+            throw new NullPointerException("parser and policy cannot be null");
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("bufferSize must be greater than 0");
+        return new DataFlow.Publisher<T>() {
+            @Override
+            public void subscribe(DataFlow.Subscriber<? super T> subscriber) {
+                if (subscriber == null)
+                    throw new NullPointerException("subscriber cannot be null");
+                register(new BufferedSubscription<>(subscriber, parser, bufferSize, policy));
+            }
+        };
+    }
+
+    /**
+     * Check if a reader thread is running for the current connection.
+     *
+     * @return true if lines are being read, false otherwise.
+     */
+    synchronized boolean isReading() {
+        return mTask != null;
+    }
+
+    /**
+     * Notifies that the current connection is being closed on purpose, so the error its reader is
+     * going to get completes the subscriptions instead of failing them.
+     */
+    synchronized void closingConnection() {
+        if (mTask != null)
+            mTask.mClosing = true;
+    }
+
+    /**
+     * Adds a subscription to the reader of the current connection, starting a new one if there's
+     * no reader yet, if the connection has changed since it started or if it's stopping: a reader
+     * without subscriptions never reads another line.
+     *
+     * @param subscription the subscription to add.
+     */
+    private void register(BufferedSubscription<?> subscription) {
+        subscription.start();
+        ReaderTask newTask = null;
+        boolean connected;
+        synchronized (this) {
+            if (subscription.isTerminated())
+                return;
+            BufferedReader reader = mSource.getInputReader();
+            connected = reader != null;
+            if (connected) {
+                if (mTask == null || mTask.mReader != reader || mTask.mSubscriptions.isEmpty()) {
+                    mTask = new ReaderTask(reader);
+                    newTask = mTask;
+                }
+                mTask.mSubscriptions.add(subscription);
+            }
+        }
+        if (!connected) {
+            subscription.fail(new IllegalStateException("There's no connection established with Arduino"));
+        } else if (newTask != null) {
+            Thread thread = new Thread(newTask, Ardutooth.TAG + "-reader");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Reads lines from a {@link BufferedReader} until it ends, an error occurs or there are no more subscriptions.
+     * Cancelled and terminated subscriptions are removed as soon as the next line arrives.
+     */
+    private class ReaderTask implements Runnable {
+        private final BufferedReader mReader;
+        private final List<BufferedSubscription<?>> mSubscriptions = new CopyOnWriteArrayList<>();
+        private volatile boolean mClosing;
+
+        ReaderTask(BufferedReader reader) {
+            mReader = reader;
+        }
+
+        @Override
+        public void run() {
+            try {
+                String line;
+                while ((line = mReader.readLine()) != null) {
+                    for (BufferedSubscription<?> subscription : mSubscriptions) {
+                        if (subscription.isTerminated())
+                            mSubscriptions.remove(subscription);
+                        else
+                            subscription.offer(line);
+                    }
+                    synchronized (LineDispatcher.this) {
+                        if (mSubscriptions.isEmpty()) {
+                            Log.d(Ardutooth.TAG, "No more subscriptions, stopped reading");
+                            return;
+                        }
+                    }
+                }
+                Log.d(Ardutooth.TAG, "Input stream ended");
+                terminate(null);
+            } catch (IOException | RuntimeException e) {
+                if (mClosing) {
+                    Log.d(Ardutooth.TAG, "Input stream closed");
+                    terminate(null);
+                } else {
+                    Log.e(Ardutooth.TAG, "Error occurred while reading input stream", e);
+                    terminate(e);
+                }
+            } finally {
+                synchronized (LineDispatcher.this) {
+                    if (mTask == this)
+                        mTask = null;
+                }
+            }
+        }
+
+        /**
+         * Completes or fails all the subscriptions and stops reading.
+         *
+         * @param error the error occurred, null if the input stream has just ended.
+         */
+        private void terminate(Throwable error) {
+            List<BufferedSubscription<?>> subscriptions;
+            synchronized (LineDispatcher.this) {
+                subscriptions = new ArrayList<>(mSubscriptions);
+                mSubscriptions.clear();
+            }
+            for (BufferedSubscription<?> subscription : subscriptions) {
+                if (error != null)
+                    subscription.fail(error);
+                else
+                    subscription.complete();
+            }
+        }
+    }
+
+    /**
+     * A {@link DataFlow.Subscription} keeping the parsed lines in a ring buffer until they're requested.
+     *
+     * <p>Items are delivered by whichever thread finds demand and buffered items first, either
+     * the reader thread or the one calling {@link #request(long)}, and never concurrently.
+     * A subscriber throwing from one of its methods gets its subscription cancelled.</p>
+     *
+     * @param <T> the type of the items delivered.
+     */
+    static class BufferedSubscription<T> implements DataFlow.Subscription {
+        private final DataFlow.Subscriber<? super T> mSubscriber;
+        private final LineParser<T> mParser;
+        private final OverflowPolicy mPolicy;
+        private final Object[] mBuffer;
+        private int mHead;
+        private int mSize;
+
+        private final AtomicLong mRequested = new AtomicLong();
+        private final AtomicInteger mWip = new AtomicInteger();
+        private volatile boolean mCancelled;
+        private volatile boolean mDone;
+        private volatile Throwable mError;
+
+        BufferedSubscription(DataFlow.Subscriber<? super T> subscriber, LineParser<T> parser, int bufferSize, OverflowPolicy policy) {
+            mSubscriber = subscriber;
+            mParser = parser;
+            mPolicy = policy;
+            mBuffer = new Object[bufferSize];
+        }
+
+        /**
+         * Signals the subscription to the subscriber.
+         */
+        void start() {
+            try {
+                mSubscriber.onSubscribe(this);
+            } catch (Throwable t) {
+                Log.e(Ardutooth.TAG, "Subscriber failed in onSubscribe, cancelling its subscription", t);
+                cancel();
+            }
+        }
+
+        /**
+         * Check if the subscription doesn't accept new items anymore.
+         *
+         * @return true if it has been cancelled, completed or failed, false otherwise.
+         */
+        boolean isTerminated() {
+            return mCancelled || mDone;
+        }
+
+        /**
+         * Parses a line and buffers it, applying the {@link OverflowPolicy} if the buffer is full.
+         * A {@link LineParser} throwing anything but an {@link IllegalArgumentException} fails the subscription.
+         *
+         * @param line the line received.
+         */
+        void offer(String line) {
+            if (isTerminated())
+                return;
+            T item;
+            try {
+                item = mParser.parse(line);
+            } catch (IllegalArgumentException e) {
+                Log.w(Ardutooth.TAG, "Skipping malformed line: " + line, e);
+                return;
+            } catch (Throwable t) {
+                Log.e(Ardutooth.TAG, "Parser failed on line: " + line, t);
+                fail(t);
+                return;
+            }
+            if (item == null)
+                return;
+            boolean overflow = false;
+            synchronized (this) {
+                if (isTerminated())
+                    return;
+                if (mSize == mBuffer.length) {
+                    if (mPolicy == OverflowPolicy.DROP_OLDEST) {
+                        mBuffer[mHead] = item;
+                        mHead = (mHead + 1) % mBuffer.length;
+                    } else if (mPolicy == OverflowPolicy.ERROR) {
+                        overflow = true;
+                    }
+                } else {
+                    mBuffer[(mHead + mSize) % mBuffer.length] = item;
+                    mSize++;
+                }
+            }
+            if (overflow)
+                fail(new IllegalStateException("Buffer of " + mBuffer.length + " items overflowed"));
+            else
+                drain();
+        }
+
+        /**
+         * Terminates the subscription with an error, discarding the buffered items.
+         *
+         * @param error the error to signal.
+         */
+        void fail(Throwable error) {
+            synchronized (this) {
+                if (mDone)
+                    return;
+                clear();
+                mError = error;
+                mDone = true;
+            }
+            drain();
+        }
+
+        /**
+         * Completes the subscription once the buffered items have been delivered.
+         */
+        void complete() {
+            synchronized (this) {
+                mDone = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Requested items must be greater than 0, was " + n));
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = mRequested.get();
+                if (current == Long.MAX_VALUE)
+                    break;
+                next = current + n;
+                if (next < 0)
+                    next = Long.MAX_VALUE;
+            } while (!mRequested.compareAndSet(current, next));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            mCancelled = true;
+            if (mWip.getAndIncrement() == 0) {
+                synchronized (this) {
+                    clear();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private synchronized T poll() {
+            if (mSize == 0)
+                return null;
+            T item = (T) mBuffer[mHead];
+            mBuffer[mHead] = null;
+            mHead = (mHead + 1) % mBuffer.length;
+            mSize--;
+            return item;
+        }
+
+        private synchronized boolean isEmpty() {
+            return mSize == 0;
+        }
+
+        private void clear() {
+            for (int i = 0; i < mBuffer.length; i++)
+                mBuffer[i] = null;
+            mHead = 0;
+            mSize = 0;
+        }
+
+        /**
+         * Delivers the buffered items as long as there's demand, then the terminal signal if any.
+         */
+        private void drain() {
+            if (mWip.getAndIncrement() != 0)
+                return;
+            int missed = 1;
+            do {
+                long requested = mRequested.get();
+                long emitted = 0;
+                while (emitted != requested && !mCancelled) {
+                    T item = poll();
+                    if (item == null)
+                        break;
+                    try {
+                        mSubscriber.onNext(item);
+                    } catch (Throwable t) {
+                        Log.e(Ardutooth.TAG, "Subscriber failed in onNext, cancelling its subscription", t);
+                        cancel();
+                    }
+                    emitted++;
+                }
+                if (mCancelled) {
+                    synchronized (this) {
+                        clear();
+                    }
+                    return;
+                }
+                if (mDone && isEmpty()) {
+                    terminate();
+                    return;
+                }
+                if (emitted != 0 && requested != Long.MAX_VALUE)
+                    mRequested.addAndGet(-emitted);
+                missed = mWip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Signals the terminal event once, then stops delivering.
+         */
+        private void terminate() {
+            mCancelled = true;
+            try {
+                if (mError != null)
+                    mSubscriber.onError(mError);
+                else
+                    mSubscriber.onComplete();
+            } catch (Throwable t) {
+                Log.e(Ardutooth.TAG, "Subscriber failed handling the end of its subscription", t);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.giuseppebrb.ardutooth;
+
+/**
+ * Converts a line received from Arduino through the Serial Monitor into a typed item.
+ *
+ * @param <T> the type of the items produced.
+ * @see LineParsers
+ */
+public interface LineParser<T> {
+    /**
+     * Converts the given line.
+     *
+     * @param line the line received, without line terminators.
+     * @return the item parsed.
+     * @throws IllegalArgumentException if the line cannot be parsed; the line is then skipped.
+     */
+    T parse(String line);
+}
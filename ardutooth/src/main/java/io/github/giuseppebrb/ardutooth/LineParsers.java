@@ -0,0 +1,73 @@
+package io.github.giuseppebrb.ardutooth;
+
+import java.util.regex.Pattern;
+
+/**
+ * Common {@link LineParser} implementations, matching the values sent by Arduino
+ * with {@code Serial.println(value)}.
+ */
+public final class LineParsers {
+
+    /**
+     * Returns the line as it is.
+     */
+    public static final LineParser<String> STRING = new LineParser<String>() {
+        @Override
+        public String parse(String line) {
+            return line;
+        }
+    };
+
+    /**
+     * Parses the line as an {@link Integer}.
+     */
+    public static final LineParser<Integer> INTEGER = new LineParser<Integer>() {
+        @Override
+        public Integer parse(String line) {
+            return Integer.valueOf(line.trim());
+        }
+    };
+
+    /**
+     * Parses the line as a {@link Long}.
+     */
+    public static final LineParser<Long> LONG = new LineParser<Long>() {
+        @Override
+        public Long parse(String line) {
+            return Long.valueOf(line.trim());
+        }
+    };
+
+    /**
+     * Parses the line as a {@link Double}.
+     */
+    public static final LineParser<Double> DOUBLE = new LineParser<Double>() {
+        @Override
+        public Double parse(String line) {
+            return Double.valueOf(line.trim());
+        }
+    };
+
+    /**
+     * Constructor
+     */
+    private LineParsers() {
+    }
+
+    /**
+     * Creates a {@link LineParser} splitting each line into its fields, e.g. {@code 12;3.5;on}
+     * sent by Arduino as a single record.
+     *
+     * @param delimiter the {@link String} separating the fields, matched literally.
+     * @return a {@link LineParser} producing the fields of each line, trailing empty ones included.
+     */
+    public static LineParser<String[]> record(String delimiter) {
+        final Pattern pattern = Pattern.compile(delimiter, Pattern.LITERAL);
+        return new LineParser<String[]>() {
+            @Override
+            public String[] parse(String line) {
+                return pattern.split(line, -1);
+            }
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.giuseppebrb.ardutooth;
+
+/**
+ * Defines what happens to the data received from Arduino when the buffer of a
+ * {@link DataFlow.Subscriber} is full because it's not requesting items as fast as they arrive.
+ */
+public enum OverflowPolicy {
+    /**
+     * Discards the oldest buffered item to make room for the new one.
+     */
+    DROP_OLDEST,
+    /**
+     * Discards the new item, keeping the buffered ones.
+     */
+    DROP_LATEST,
+    /**
+     * Terminates the subscription with an {@link IllegalStateException}.
+     */
+    ERROR
+}
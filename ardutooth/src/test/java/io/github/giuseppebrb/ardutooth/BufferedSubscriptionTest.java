@@ -0,0 +1,146 @@
+package io.github.giuseppebrb.ardutooth;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BufferedSubscriptionTest {
+
+    private static LineDispatcher.BufferedSubscription<Integer> subscribe(TestSubscriber<Integer> subscriber, int bufferSize, OverflowPolicy policy) {
+        LineDispatcher.BufferedSubscription<Integer> subscription =
+                new LineDispatcher.BufferedSubscription<>(subscriber, LineParsers.INTEGER, bufferSize, policy);
+        subscription.start();
+        return subscription;
+    }
+
+    private static void offer(LineDispatcher.BufferedSubscription<?> subscription, int from, int to) {
+        for (int i = from; i <= to; i++)
+            subscription.offer(String.valueOf(i));
+    }
+
+    @Test
+    public void dropOldestKeepsLatestItems() {
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(0);
+        LineDispatcher.BufferedSubscription<Integer> subscription = subscribe(subscriber, 3, OverflowPolicy.DROP_OLDEST);
+        offer(subscription, 1, 5);
+        subscription.request(10);
+        assertEquals(Arrays.asList(3, 4, 5), subscriber.items());
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void dropLatestKeepsEarliestItems() {
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(0);
+        LineDispatcher.BufferedSubscription<Integer> subscription = subscribe(subscriber, 3, OverflowPolicy.DROP_LATEST);
+        offer(subscription, 1, 5);
+        subscription.request(10);
+        assertEquals(Arrays.asList(1, 2, 3), subscriber.items());
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void errorPolicyFailsAndDiscardsBufferedItems() {
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(0);
+        LineDispatcher.BufferedSubscription<Integer> subscription = subscribe(subscriber, 3, OverflowPolicy.ERROR);
+        offer(subscription, 1, 4);
+        assertTrue(subscriber.error instanceof IllegalStateException);
+        subscription.offer("5");
+        subscription.request(10);
+        assertTrue(subscriber.items().isEmpty());
+        assertTrue(subscription.isTerminated());
+    }
+
+    @Test
+    public void deliversOnlyRequestedItems() {
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(2);
+        LineDispatcher.BufferedSubscription<Integer> subscription = subscribe(subscriber, 10, OverflowPolicy.DROP_OLDEST);
+        offer(subscription, 1, 5);
+        assertEquals(Arrays.asList(1, 2), subscriber.items());
+        subscription.request(1);
+        assertEquals(Arrays.asList(1, 2, 3), subscriber.items());
+        subscription.offer("6");
+        assertEquals(Arrays.asList(1, 2, 3), subscriber.items());
+    }
+
+    @Test
+    public void reentrantRequestFromOnNextKeepsDelivering() {
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(1);
+        subscriber.requestOnNext = true;
+        LineDispatcher.BufferedSubscription<Integer> subscription = subscribe(subscriber, 10, OverflowPolicy.DROP_OLDEST);
+        offer(subscription, 1, 5);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), subscriber.items());
+    }
+
+    @Test
+    public void unboundedDemandIsNeverExhausted() {
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(Long.MAX_VALUE);
+        LineDispatcher.BufferedSubscription<Integer> subscription = subscribe(subscriber, 2, OverflowPolicy.ERROR);
+        subscription.request(Long.MAX_VALUE);
+        subscription.request(5);
+        offer(subscription, 1, 100);
+        assertEquals(100, subscriber.items().size());
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void nonPositiveRequestFails() {
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(0);
+        LineDispatcher.BufferedSubscription<Integer> subscription = subscribe(subscriber, 2, OverflowPolicy.DROP_OLDEST);
+        subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void completesAfterBufferedItemsAreDelivered() {
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(0);
+        LineDispatcher.BufferedSubscription<Integer> subscription = subscribe(subscriber, 5, OverflowPolicy.DROP_OLDEST);
+        offer(subscription, 1, 2);
+        subscription.complete();
+        assertFalse(subscriber.completed);
+        subscription.request(2);
+        assertEquals(Arrays.asList(1, 2), subscriber.items());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void cancelInsideOnSubscribeTerminates() {
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(0);
+        subscriber.cancelOnSubscribe = true;
+        LineDispatcher.BufferedSubscription<Integer> subscription = subscribe(subscriber, 5, OverflowPolicy.DROP_OLDEST);
+        assertTrue(subscription.isTerminated());
+        offer(subscription, 1, 2);
+        subscription.request(2);
+        assertTrue(subscriber.items().isEmpty());
+    }
+
+    @Test
+    public void malformedLinesAreSkipped() {
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(10);
+        LineDispatcher.BufferedSubscription<Integer> subscription = subscribe(subscriber, 5, OverflowPolicy.DROP_OLDEST);
+        subscription.offer("1");
+        subscription.offer("one");
+        subscription.offer("2");
+        assertEquals(Arrays.asList(1, 2), subscriber.items());
+        assertNull(subscriber.error);
+    }
+
+    @Test
+    public void throwingSubscriberIsCancelled() {
+        TestSubscriber<Integer> subscriber = new TestSubscriber<Integer>(10) {
+            @Override
+            public void onNext(Integer item) {
+                super.onNext(item);
+                throw new RuntimeException("boom");
+            }
+        };
+        LineDispatcher.BufferedSubscription<Integer> subscription = subscribe(subscriber, 5, OverflowPolicy.DROP_OLDEST);
+        offer(subscription, 1, 3);
+        assertEquals(Arrays.asList(1), subscriber.items());
+        assertTrue(subscription.isTerminated());
+    }
+}
@@ -0,0 +1,139 @@
+package io.github.giuseppebrb.ardutooth;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DataStreamsTest {
+
+    /**
+     * A {@link DataFlow.Publisher} recording the demand of its only subscriber and emitting on request of the test.
+     */
+    private static class TestPublisher<T> implements DataFlow.Publisher<T>, DataFlow.Subscription {
+        DataFlow.Subscriber<? super T> subscriber;
+        long requested;
+        boolean cancelled;
+
+        @Override
+        public void subscribe(DataFlow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            requested = n == Long.MAX_VALUE || requested + n < 0 ? Long.MAX_VALUE : requested + n;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @SafeVarargs
+        final void emit(T... items) {
+            for (T item : items)
+                subscriber.onNext(item);
+        }
+    }
+
+    @Test
+    public void sampleRequestsAndPublishesEveryNthItem() {
+        TestPublisher<Integer> source = new TestPublisher<>();
+        TestSubscriber<Integer> subscriber = new TestSubscriber<>(2);
+        DataStreams.sample(source, 3).subscribe(subscriber);
+        assertEquals(6, source.requested);
+        source.emit(1, 2, 3, 4, 5, 6);
+        assertEquals(Arrays.asList(3, 6), subscriber.items());
+    }
+
+    @Test
+    public void sampleCapsUnboundedDemand() {
+        TestPublisher<Integer> source = new TestPublisher<>();
+        DataStreams.sample(source, 3).subscribe(new TestSubscriber<Integer>(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, source.requested);
+    }
+
+    @Test
+    public void batchRequestsWholeBatches() {
+        TestPublisher<String> source = new TestPublisher<>();
+        TestSubscriber<List<String>> subscriber = new TestSubscriber<>(1);
+        DataStreams.batch(source, 2).subscribe(subscriber);
+        assertEquals(2, source.requested);
+        source.emit("a", "b");
+        subscriber.subscription.request(1);
+        assertEquals(4, source.requested);
+        source.emit("c", "d");
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d")), subscriber.items());
+    }
+
+    @Test
+    public void doubleWindowsOverlapWhenStepIsSmaller() {
+        TestPublisher<String> source = new TestPublisher<>();
+        TestSubscriber<double[]> subscriber = new TestSubscriber<>(2);
+        DataStreams.doubleWindows(source, 3, 1).subscribe(subscriber);
+        assertEquals(4, source.requested);
+        source.emit("1", "2", "3", "4");
+        assertEquals(2, subscriber.items().size());
+        assertArrayEquals(new double[]{1, 2, 3}, subscriber.items().get(0), 0);
+        assertArrayEquals(new double[]{2, 3, 4}, subscriber.items().get(1), 0);
+        subscriber.subscription.request(1);
+        assertEquals(5, source.requested);
+    }
+
+    @Test
+    public void doubleWindowsCapLargeFirstRequest() {
+        TestPublisher<String> source = new TestPublisher<>();
+        TestSubscriber<double[]> subscriber = new TestSubscriber<>(Long.MAX_VALUE - 1);
+        DataStreams.doubleWindows(source, 3, 1).subscribe(subscriber);
+        assertEquals(Long.MAX_VALUE, source.requested);
+        source.emit("1", "2", "3");
+        assertEquals(1, subscriber.items().size());
+    }
+
+    @Test
+    public void doubleWindowsSkipValuesWhenStepIsGreater() {
+        TestPublisher<String> source = new TestPublisher<>();
+        TestSubscriber<double[]> subscriber = new TestSubscriber<>(2);
+        DataStreams.doubleWindows(source, 2, 3).subscribe(subscriber);
+        assertEquals(5, source.requested);
+        source.emit("1", "2", "3", "4", "5");
+        assertEquals(2, subscriber.items().size());
+        assertArrayEquals(new double[]{1, 2}, subscriber.items().get(0), 0);
+        assertArrayEquals(new double[]{4, 5}, subscriber.items().get(1), 0);
+    }
+
+    @Test
+    public void doubleBatchesReplaceMalformedLines() {
+        TestPublisher<String> source = new TestPublisher<>();
+        TestSubscriber<double[]> subscriber = new TestSubscriber<>(1);
+        DataStreams.doubleBatches(source, 2).subscribe(subscriber);
+        assertEquals(2, source.requested);
+        source.emit("1.5", "n/a");
+        assertEquals(3, source.requested);
+        source.emit(" 2.5 ");
+        assertEquals(1, subscriber.items().size());
+        assertArrayEquals(new double[]{1.5, 2.5}, subscriber.items().get(0), 0);
+    }
+
+    @Test
+    public void operatorsForwardCancelAndTerminalSignals() {
+        TestPublisher<String> source = new TestPublisher<>();
+        TestSubscriber<double[]> subscriber = new TestSubscriber<>(1);
+        DataStreams.doubleBatches(source, 2).subscribe(subscriber);
+        source.subscriber.onComplete();
+        assertTrue(subscriber.completed);
+        subscriber.subscription.cancel();
+        assertTrue(source.cancelled);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveSizes() {
+        DataStreams.doubleWindows(new TestPublisher<String>(), 3, 0);
+    }
+}
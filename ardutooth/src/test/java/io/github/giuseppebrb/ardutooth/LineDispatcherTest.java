@@ -0,0 +1,232 @@
+package io.github.giuseppebrb.ardutooth;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LineDispatcherTest {
+
+    /**
+     * A {@link Reader} blocking until the test sends it some text, the end of the stream or an error.
+     */
+    private static class QueueReader extends Reader {
+        private static final Object END = new Object();
+        private final BlockingQueue<Object> mChunks = new LinkedBlockingQueue<>();
+        private String mPending = "";
+
+        void send(String... lines) {
+            for (String line : lines)
+                mChunks.add(line + "\n");
+        }
+
+        void end() {
+            mChunks.add(END);
+        }
+
+        void fail() {
+            mChunks.add(new IOException("connection lost"));
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (mPending.isEmpty()) {
+                Object chunk;
+                try {
+                    chunk = mChunks.take();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                if (chunk == END)
+                    return -1;
+                if (chunk instanceof IOException)
+                    throw (IOException) chunk;
+                mPending = (String) chunk;
+            }
+            int count = Math.min(length, mPending.length());
+            mPending.getChars(0, count, buffer, offset);
+            mPending = mPending.substring(count);
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * An {@link LineDispatcher.InputSource} whose connection can be replaced.
+     */
+    private static class TestSource implements LineDispatcher.InputSource {
+        volatile BufferedReader reader;
+
+        QueueReader connect() {
+            QueueReader input = new QueueReader();
+            reader = new BufferedReader(input, 1);
+            return input;
+        }
+
+        @Override
+        public BufferedReader getInputReader() {
+            return reader;
+        }
+    }
+
+    private static void awaitNotReading(LineDispatcher dispatcher) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (dispatcher.isReading() && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+    }
+
+    @Test
+    public void failsWhenNotConnected() throws InterruptedException {
+        LineDispatcher dispatcher = new LineDispatcher(new TestSource());
+        TestSubscriber<String> subscriber = new TestSubscriber<>(1);
+        dispatcher.publisher(LineParsers.STRING, 4, OverflowPolicy.DROP_OLDEST).subscribe(subscriber);
+        assertTrue(subscriber.awaitTerminated());
+        assertTrue(subscriber.error instanceof IllegalStateException);
+        assertFalse(dispatcher.isReading());
+    }
+
+    @Test
+    public void dispatchesParsedLinesToEverySubscriber() throws InterruptedException {
+        TestSource source = new TestSource();
+        QueueReader input = source.connect();
+        LineDispatcher dispatcher = new LineDispatcher(source);
+        TestSubscriber<Integer> ints = new TestSubscriber<>(Long.MAX_VALUE);
+        TestSubscriber<String[]> records = new TestSubscriber<>(Long.MAX_VALUE);
+        dispatcher.publisher(LineParsers.INTEGER, 4, OverflowPolicy.DROP_OLDEST).subscribe(ints);
+        dispatcher.publisher(LineParsers.record(";"), 4, OverflowPolicy.DROP_OLDEST).subscribe(records);
+        input.send("1", "2;3");
+        input.end();
+        assertTrue(ints.awaitTerminated());
+        assertTrue(records.awaitTerminated());
+        assertEquals(Arrays.asList(1), ints.items());
+        assertEquals(2, records.items().size());
+        assertTrue(ints.completed);
+        assertTrue(records.completed);
+    }
+
+    @Test
+    public void cancelInsideOnSubscribeDoesNotStartReading() {
+        TestSource source = new TestSource();
+        source.connect();
+        LineDispatcher dispatcher = new LineDispatcher(source);
+        TestSubscriber<String> subscriber = new TestSubscriber<>(0);
+        subscriber.cancelOnSubscribe = true;
+        dispatcher.publisher(LineParsers.STRING, 4, OverflowPolicy.DROP_OLDEST).subscribe(subscriber);
+        assertFalse(dispatcher.isReading());
+    }
+
+    @Test
+    public void stopsReadingAfterLastCancel() throws InterruptedException, IOException {
+        TestSource source = new TestSource();
+        QueueReader input = source.connect();
+        LineDispatcher dispatcher = new LineDispatcher(source);
+        TestSubscriber<String> subscriber = new TestSubscriber<>(Long.MAX_VALUE);
+        dispatcher.publisher(LineParsers.STRING, 4, OverflowPolicy.DROP_OLDEST).subscribe(subscriber);
+        input.send("a");
+        assertEquals(Arrays.asList("a"), subscriber.awaitItems(1));
+        subscriber.subscription.cancel();
+        assertTrue(dispatcher.isReading());
+        input.send("b", "c");
+        awaitNotReading(dispatcher);
+        assertFalse(dispatcher.isReading());
+        assertEquals("c", source.reader.readLine());
+        assertEquals(Arrays.asList("a"), subscriber.items());
+    }
+
+    @Test
+    public void throwingSubscriberDoesNotStopOthers() throws InterruptedException {
+        TestSource source = new TestSource();
+        QueueReader input = source.connect();
+        LineDispatcher dispatcher = new LineDispatcher(source);
+        DataFlow.Publisher<String> publisher = dispatcher.publisher(LineParsers.STRING, 4, OverflowPolicy.DROP_OLDEST);
+        TestSubscriber<String> throwing = new TestSubscriber<String>(Long.MAX_VALUE) {
+            @Override
+            public void onNext(String item) {
+                throw new RuntimeException("boom");
+            }
+        };
+        TestSubscriber<String> healthy = new TestSubscriber<>(Long.MAX_VALUE);
+        publisher.subscribe(throwing);
+        publisher.subscribe(healthy);
+        input.send("a", "b");
+        assertEquals(Arrays.asList("a", "b"), healthy.awaitItems(2));
+
+        TestSubscriber<String> late = new TestSubscriber<>(Long.MAX_VALUE);
+        publisher.subscribe(late);
+        input.send("c");
+        assertEquals(Arrays.asList("c"), late.awaitItems(1));
+        assertNull(healthy.error);
+    }
+
+    @Test
+    public void throwingParserFailsOnlyItsSubscription() throws InterruptedException {
+        TestSource source = new TestSource();
+        QueueReader input = source.connect();
+        LineDispatcher dispatcher = new LineDispatcher(source);
+        TestSubscriber<String> broken = new TestSubscriber<>(Long.MAX_VALUE);
+        TestSubscriber<String> healthy = new TestSubscriber<>(Long.MAX_VALUE);
+        dispatcher.publisher(new LineParser<String>() {
+            @Override
+            public String parse(String line) {
+                throw new IllegalStateException("broken parser");
+            }
+        }, 4, OverflowPolicy.DROP_OLDEST).subscribe(broken);
+        dispatcher.publisher(LineParsers.STRING, 4, OverflowPolicy.DROP_OLDEST).subscribe(healthy);
+        input.send("a", "b");
+        assertTrue(broken.awaitTerminated());
+        assertTrue(broken.error instanceof IllegalStateException);
+        assertEquals(Arrays.asList("a", "b"), healthy.awaitItems(2));
+    }
+
+    @Test
+    public void closingConnectionCompletesKeepingBufferedLines() throws InterruptedException {
+        TestSource source = new TestSource();
+        QueueReader input = source.connect();
+        LineDispatcher dispatcher = new LineDispatcher(source);
+        TestSubscriber<String> subscriber = new TestSubscriber<>(0);
+        dispatcher.publisher(LineParsers.STRING, 4, OverflowPolicy.DROP_OLDEST).subscribe(subscriber);
+        input.send("a", "b");
+        dispatcher.closingConnection();
+        input.fail();
+        awaitNotReading(dispatcher);
+        assertNull(subscriber.error);
+        subscriber.subscription.request(2);
+        assertTrue(subscriber.awaitTerminated());
+        assertEquals(Arrays.asList("a", "b"), subscriber.items());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void subscribingAfterReconnectionReadsTheNewStream() throws InterruptedException {
+        TestSource source = new TestSource();
+        QueueReader oldInput = source.connect();
+        LineDispatcher dispatcher = new LineDispatcher(source);
+        DataFlow.Publisher<String> publisher = dispatcher.publisher(LineParsers.STRING, 4, OverflowPolicy.DROP_OLDEST);
+        TestSubscriber<String> before = new TestSubscriber<>(Long.MAX_VALUE);
+        publisher.subscribe(before);
+
+        QueueReader newInput = source.connect();
+        TestSubscriber<String> after = new TestSubscriber<>(Long.MAX_VALUE);
+        publisher.subscribe(after);
+        oldInput.fail();
+        assertTrue(before.awaitTerminated());
+        assertTrue(before.error instanceof IOException);
+
+        newInput.send("a");
+        assertEquals(Arrays.asList("a"), after.awaitItems(1));
+        assertNull(after.error);
+        assertFalse(after.completed);
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.giuseppebrb.ardutooth;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class LineParsersTest {
+
+    @Test
+    public void parsesNumbersIgnoringSurroundingSpaces() {
+        assertEquals(Integer.valueOf(42), LineParsers.INTEGER.parse(" 42\r"));
+        assertEquals(Long.valueOf(5000000000L), LineParsers.LONG.parse("5000000000"));
+        assertEquals(Double.valueOf(3.5), LineParsers.DOUBLE.parse("3.5 "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMalformedNumbers() {
+        LineParsers.INTEGER.parse("4x");
+    }
+
+    @Test
+    public void splitsRecordsOnLiteralDelimiter() {
+        assertArrayEquals(new String[]{"1", "2.5", ""}, LineParsers.record("|").parse("1|2.5|"));
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.giuseppebrb.ardutooth;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link DataFlow.Subscriber} recording the signals it receives.
+ */
+class TestSubscriber<T> implements DataFlow.Subscriber<T> {
+    private final long mInitialRequest;
+    private final List<T> mItems = new ArrayList<>();
+    private final CountDownLatch mTerminated = new CountDownLatch(1);
+    volatile DataFlow.Subscription subscription;
+    volatile Throwable error;
+    volatile boolean completed;
+    volatile boolean requestOnNext;
+    volatile boolean cancelOnSubscribe;
+
+    TestSubscriber(long initialRequest) {
+        mInitialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(DataFlow.Subscription subscription) {
+        this.subscription = subscription;
+        if (cancelOnSubscribe)
+            subscription.cancel();
+        else if (mInitialRequest > 0)
+            subscription.request(mInitialRequest);
+    }
+
+    @Override
+    public void onNext(T item) {
+        synchronized (mItems) {
+            mItems.add(item);
+            mItems.notifyAll();
+        }
+        if (requestOnNext)
+            subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        mTerminated.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+        completed = true;
+        mTerminated.countDown();
+    }
+
+    List<T> items() {
+        synchronized (mItems) {
+            return new ArrayList<>(mItems);
+        }
+    }
+
+    List<T> awaitItems(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        synchronized (mItems) {
+            while (mItems.size() < count && System.currentTimeMillis() < deadline)
+                mItems.wait(50);
+            return new ArrayList<>(mItems);
+        }
+    }
+
+    boolean awaitTerminated() throws InterruptedException {
+        return mTerminated.await(2, TimeUnit.SECONDS);
+    }
+}